@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+// Decyduje, czy serwer przyjmie kolejną grę. Przyjęcia są dozowane kubełkiem żetonów, a nowe
+// gry są odrzucane, gdy brakuje miejsca, 99. percentyl czasu tury jest za wysoki albo kończy się sterta.
+public class AdmissionControl {
+    private static final double ACCEPTS_PER_SECOND = 50;
+    private static final double BURST = 20;
+    private static final long MAX_P99_TURN_NANOS = 200_000_000L;
+    private static final double MIN_FREE_HEAP = 0.10;
+    private static final int LATENCY_SAMPLES = 1024;
+    // Starsze pomiary nie blokują przyjęć, gdy obciążenie już minęło
+    private static final long LATENCY_WINDOW_NANOS = 10_000_000_000L;
+
+    private final int maxSessions;
+    private int activeSessions;
+    private double tokens;
+    private long lastRefill;
+    private final long[] latencies;
+    private final long[] latencyTimes;
+    private int latencyCount;
+    private int latencyNext;
+
+    public AdmissionControl(int maxSessions) {
+        this.maxSessions = maxSessions;
+        this.tokens = BURST;
+        this.lastRefill = System.nanoTime();
+        this.latencies = new long[LATENCY_SAMPLES];
+        this.latencyTimes = new long[LATENCY_SAMPLES];
+    }
+
+    // Czeka na żeton (dozowanie przyjęć), a potem zwraca powód odrzucenia albo null, gdy gra została przyjęta
+    public String tryAdmit() throws InterruptedException {
+        awaitToken();
+
+        synchronized (this) {
+            if (activeSessions >= maxSessions) {
+                return "osiągnięto limit " + maxSessions + " gier";
+            }
+            long p99 = turnLatencyP99();
+            if (p99 > MAX_P99_TURN_NANOS) {
+                return String.format("p99 czasu tury %.0f ms", p99 / 1e6);
+            }
+            double freeHeap = freeHeapFraction();
+            if (freeHeap < MIN_FREE_HEAP) {
+                return String.format("wolna sterta %.0f%%", freeHeap * 100);
+            }
+            activeSessions++;
+            return null;
+        }
+    }
+
+    public synchronized void release() {
+        activeSessions--;
+    }
+
+    public synchronized void recordTurnLatency(long nanos) {
+        latencies[latencyNext] = nanos;
+        latencyTimes[latencyNext] = System.nanoTime();
+        latencyNext = (latencyNext + 1) % LATENCY_SAMPLES;
+        if (latencyCount < LATENCY_SAMPLES) {
+            latencyCount++;
+        }
+    }
+
+    public synchronized int getActiveSessions() {
+        return activeSessions;
+    }
+
+    private void awaitToken() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(BURST, tokens + (now - lastRefill) / 1e9 * ACCEPTS_PER_SECOND);
+                lastRefill = now;
+                if (tokens >= 1) {
+                    tokens--;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) / ACCEPTS_PER_SECOND * 1e9);
+            }
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    // Wywoływane pod blokadą
+    private long turnLatencyP99() {
+        long now = System.nanoTime();
+        long[] recent = new long[latencyCount];
+        int count = 0;
+        for (int i = 0; i < latencyCount; i++) {
+            if (now - latencyTimes[i] <= LATENCY_WINDOW_NANOS) {
+                recent[count++] = latencies[i];
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(recent, 0, count);
+        return recent[(int) Math.ceil(count * 0.99) - 1];
+    }
+
+    private static double freeHeapFraction() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return 1 - (double) used / runtime.maxMemory();
+    }
+}
@@ -2,12 +2,19 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 
 public class BattleshipClient {
     private String host;
     private int port;
     private String mapFile;
     private BufferedReader consoleReader;
+    private boolean binaryEncoding;
+    private SpectatorHub spectators;
+    private ShotStrategy bot;
+    private SessionListener sessionListener;
+    private int multiplexedGames;
 
     public BattleshipClient(String host, int port, String mapFile) {
         this.host = host;
@@ -16,31 +23,105 @@ public class BattleshipClient {
         this.consoleReader = new BufferedReader(new InputStreamReader(System.in));
     }
 
+    public void setBinaryEncoding(boolean binaryEncoding) {
+        this.binaryEncoding = binaryEncoding;
+    }
+
+    public void setSpectators(SpectatorHub spectators) {
+        this.spectators = spectators;
+    }
+
+    // Strzały wybiera strategia zamiast gracza przy konsoli
+    public void setBot(ShotStrategy bot) {
+        this.bot = bot;
+    }
+
+    public void setSessionListener(SessionListener sessionListener) {
+        this.sessionListener = sessionListener;
+    }
+
+    // Klient proponuje serwerowi multipleksowanie i rozgrywa naraz tyle gier na jednym połączeniu (wymaga bota)
+    public void setMultiplexedGames(int multiplexedGames) {
+        this.multiplexedGames = multiplexedGames;
+    }
+
     public void start() throws IOException {
         Socket socket = new Socket(host, port);
         System.out.println("Połączono z serwerem " + host + ":" + port);
 
+        if (multiplexedGames > 0) {
+            MultiplexedConnection connection = MultiplexedConnection.open(socket);
+            if (connection != null) {
+                playMultiplexed(connection);
+                return;
+            }
+            System.out.println("Serwer nie obsługuje multipleksowania, gram jedną grę");
+        }
+
         GameBoard board = new GameBoard(mapFile);
         board.displayInitialBoard();
+        if (spectators != null) {
+            board.setSpectators(spectators, String.valueOf(port), "klient");
+        }
 
-        NetworkProtocol protocol = new NetworkProtocol(socket);
+        NetworkProtocol protocol = new NetworkProtocol(socket, binaryEncoding);
         playGame(protocol, board);
     }
 
+    private void playMultiplexed(MultiplexedConnection connection) throws IOException {
+        List<Thread> games = new ArrayList<>();
+        for (int i = 1; i <= multiplexedGames; i++) {
+            String gameName = port + "-" + i;
+            GameBoard board = new GameBoard(mapFile);
+            if (spectators != null) {
+                board.setSpectators(spectators, gameName, "klient");
+            }
+            NetworkProtocol protocol = connection.openGame();
+            Thread game = new Thread(() -> {
+                try {
+                    playGame(protocol, board);
+                } catch (IOException e) {
+                    System.out.println("Gra " + gameName + " przerwana: " + e.getMessage());
+                }
+            }, "gra-" + gameName);
+            game.start();
+            games.add(game);
+        }
+        try {
+            for (Thread game : games) {
+                game.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano oczekiwanie na gry");
+        } finally {
+            connection.close();
+        }
+    }
+
     private void playGame(NetworkProtocol protocol, GameBoard board) throws IOException {
         boolean gameOver = false;
         boolean myTurn = true;
         String lastResult = "";
+        boolean firstShot = true;
+        if (sessionListener != null) {
+            sessionListener.gameStarted();
+        }
 
         System.out.println("\n=== ROZPOCZĘCIE GRY ===\n");
 
         while (!gameOver) {
             if (myTurn) {
+                long turnStart = System.nanoTime();
                 System.out.println("\n--- TURA KLIENTA ---");
                 board.displayOwnBoard();
                 board.displayEnemyBoard(false);
 
                 String shotCoord = getValidShot(board);
+                if (firstShot && sessionListener != null) {
+                    sessionListener.firstShot(System.nanoTime() - turnStart);
+                }
+                firstShot = false;
                 System.out.println("Strzelam w: " + shotCoord);
 
                 String message = "start;" + shotCoord;
@@ -55,6 +136,11 @@ public class BattleshipClient {
                 String result = responseParts[0];
                 String responseCoord = responseParts.length > 1 ? responseParts[1] : null;
 
+                if ("zajęty".equals(result)) {
+                    System.out.println("Serwer jest zajęty, spróbuj później");
+                    break;
+                }
+
                 board.recordOurShot(shotCoord, result);
 
                 System.out.println("Rezultat: " + result);
@@ -133,6 +219,9 @@ public class BattleshipClient {
     }
 
     private String getValidShot(GameBoard board) throws IOException {
+        if (bot != null) {
+            return bot.nextShot(board);
+        }
         while (true) {
             System.out.print("Podaj współrzędne strzału: ");
             String input = consoleReader.readLine().trim().toUpperCase();
@@ -143,7 +232,7 @@ public class BattleshipClient {
             }
 
             if (board.alreadyShotAt(input)) {
-                System.out.println("Już strzelałeś w to miejsce. Wybierz inne.");
+                System.out.println("Już strzelałeś w to miejsce lub sąsiaduje ono z zatopionym statkiem. Wybierz inne.");
                 continue;
             }
 
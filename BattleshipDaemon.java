@@ -0,0 +1,131 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Rozgrzana JVM, która przyjmuje przez lokalne gniazdo linie z parametrami (np. "-mode client -host h
+// -port 5000 -bot polowanie") i uruchamia każdą sesję w osobnym wątku, bez startu nowej JVM.
+public class BattleshipDaemon {
+    private static final int WARMUP_GAMES = 500;
+    private static final String[] PRELOADED_CLASSES = {
+            "BattleshipServer", "BattleshipClient", "NetworkProtocol", "MultiplexedConnection", "SpectatorHub"
+    };
+
+    private int port;
+
+    public BattleshipDaemon(int port) {
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        warmUp();
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Demon nasłuchuje na porcie " + port);
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> runSession(socket), "sesja-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    // Ładuje klasy i przepuszcza przez JIT generator, planszę i strategie, zanim przyjdzie pierwsza sesja
+    private void warmUp() throws IOException {
+        long startTime = System.nanoTime();
+        for (String className : PRELOADED_CLASSES) {
+            try {
+                Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Brak klasy " + className);
+            }
+        }
+
+        Random random = new Random();
+        HeadlessGame game = new HeadlessGame(
+                ShotStrategy.forName("ksiazka", random),
+                ShotStrategy.forName("polowanie", random));
+        for (int i = 0; i < WARMUP_GAMES; i++) {
+            game.play(i % 2 == 0);
+        }
+        System.out.printf("Rozgrzewka: %d gier w %.0f ms%n", WARMUP_GAMES, (System.nanoTime() - startTime) / 1e6);
+    }
+
+    private void runSession(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+
+            String line = in.readLine();
+            if (line == null) {
+                return;
+            }
+            long received = System.nanoTime();
+            String[] args = line.trim().split("\\s+");
+            String mode = valueOf(args, "-mode");
+            if (!"server".equals(mode) && !"client".equals(mode)) {
+                out.println("błąd;Demon uruchamia tylko sesje server i client");
+                return;
+            }
+            if (!Arrays.asList(args).contains("-bot")) {
+                // demon nie ma konsoli, z której gracz mógłby podawać strzały
+                out.println("błąd;Sesja w demonie wymaga -bot");
+                return;
+            }
+            if (Arrays.asList(args).contains("-sessions")) {
+                out.println("błąd;Demon uruchamia pojedyncze gry, bez -sessions");
+                return;
+            }
+
+            out.println("uruchomiono");
+            try {
+                // przy -mux gier jest kilka - zgłaszamy pierwszą
+                AtomicBoolean started = new AtomicBoolean();
+                AtomicBoolean shot = new AtomicBoolean();
+                BattleshipGame.launch(args, new SessionListener() {
+                    @Override
+                    public void gameStarted() {
+                        if (started.compareAndSet(false, true)) {
+                            report(out, line, "gra", System.nanoTime() - received);
+                        }
+                    }
+
+                    @Override
+                    public void firstShot(long turnNanos) {
+                        if (shot.compareAndSet(false, true)) {
+                            report(out, line, "pierwszy strzał", turnNanos);
+                        }
+                    }
+                });
+                out.println("zakończono");
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Błąd sesji [" + line + "]: " + e.getMessage());
+                out.println("błąd;" + e.getMessage());
+            }
+        } catch (IOException e) {
+            System.out.println("Błąd połączenia z demonem: " + e.getMessage());
+        }
+    }
+
+    private static void report(PrintWriter out, String line, String event, long nanos) {
+        String elapsed = String.format("%.1f ms", nanos / 1e6);
+        System.out.println("Sesja [" + line + "]: " + event + " po " + elapsed);
+        out.println(event + ";" + elapsed);
+    }
+
+    private static String valueOf(String[] args, String key) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (key.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+}
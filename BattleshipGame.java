@@ -1,39 +1,97 @@
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 public class BattleshipGame {
     public static void main(String[] args) {
-        Map<String, String> params = parseArgs(args);
-
-        if (!params.containsKey("mode") || !params.containsKey("port")) {
-            System.err.println("Brak -mode i -port");
+        try {
+            launch(args, null);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Błąd: " + e.getMessage());
             System.exit(1);
         }
+    }
+
+    // Uruchamia sesję w bieżącej JVM; używane przez main i przez demona (-mode daemon).
+    // listener dostaje zdarzenia gier serwera i klienta (może być null).
+    static void launch(String[] args, SessionListener listener) throws IOException {
+        Map<String, String> params = parseArgs(args);
 
         String mode = params.get("mode");
-        int port = Integer.parseInt(params.get("port"));
+        // turniej sam wybiera port dla swoich procesów roboczych, księga otwarć nie używa sieci
+        if (mode == null || (!params.containsKey("port") && !"tournament".equals(mode) && !"book".equals(mode))) {
+            throw new IllegalArgumentException("Brak -mode i -port");
+        }
+
+        int port = Integer.parseInt(params.getOrDefault("port", "0"));
         String mapFile = params.get("map");
         String host = params.get("host");
+        boolean binary = params.containsKey("binary");
+        ShotStrategy bot = params.containsKey("bot") ? ShotStrategy.forName(params.get("bot"), new Random()) : null;
 
-        try {
-            if ("server".equals(mode)) {
-                BattleshipServer server = new BattleshipServer(port, mapFile);
-                server.start();
-            } else if ("client".equals(mode)) {
-                if (host == null) {
-                    System.err.println("Tryb client wymaga -host");
-                    System.exit(1);
+        SpectatorHub spectators = null;
+        if (params.containsKey("spectators")) {
+            spectators = new SpectatorHub(Integer.parseInt(params.get("spectators")));
+            spectators.start();
+        }
+
+        if ("server".equals(mode)) {
+            BattleshipServer server = new BattleshipServer(host, port, mapFile);
+            server.setBinaryEncoding(binary);
+            server.setSpectators(spectators);
+            server.setBot(bot);
+            server.setSessionListener(listener);
+            if (params.containsKey("sessions")) {
+                if (bot == null) {
+                    throw new IllegalArgumentException("Tryb -sessions wymaga -bot");
                 }
-                BattleshipClient client = new BattleshipClient(host, port, mapFile);
-                client.start();
-            } else {
-                System.err.println("Nieznany tryb: " + mode);
-                System.exit(1);
+                server.setMaxSessions(Integer.parseInt(params.get("sessions")));
             }
-        } catch (IOException e) {
-            System.err.println("Błąd: " + e.getMessage());
-            System.exit(1);
+            server.start();
+        } else if ("client".equals(mode)) {
+            if (host == null) {
+                throw new IllegalArgumentException("Tryb client wymaga -host");
+            }
+            BattleshipClient client = new BattleshipClient(host, port, mapFile);
+            client.setBinaryEncoding(binary);
+            client.setSpectators(spectators);
+            client.setBot(bot);
+            client.setSessionListener(listener);
+            if (params.containsKey("mux")) {
+                if (bot == null) {
+                    throw new IllegalArgumentException("Tryb -mux wymaga -bot");
+                }
+                client.setMultiplexedGames(Integer.parseInt(params.get("mux")));
+            }
+            client.start();
+        } else if ("lobby".equals(mode)) {
+            BattleshipLobby lobby = new BattleshipLobby(port);
+            lobby.start();
+        } else if ("daemon".equals(mode)) {
+            BattleshipDaemon daemon = new BattleshipDaemon(port);
+            daemon.start();
+        } else if ("worker".equals(mode)) {
+            TournamentWorker worker = new TournamentWorker(host != null ? host : "127.0.0.1", port);
+            worker.start();
+        } else if ("tournament".equals(mode)) {
+            String[] strategies = params.getOrDefault("strategies", "losowa,polowanie,ksiazka").split(",");
+            int games = Integer.parseInt(params.getOrDefault("games", "100"));
+            int workers = Integer.parseInt(params.getOrDefault("workers",
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
+            TournamentCoordinator coordinator = new TournamentCoordinator(strategies, games, workers);
+            coordinator.start();
+        } else if ("book".equals(mode)) {
+            int layouts = Integer.parseInt(params.getOrDefault("games", "1000000"));
+            String bookFile = params.getOrDefault("book", OpeningBook.DEFAULT_FILE);
+            OpeningBook book = OpeningBook.build(BattleshipGenerator.defaultInstance(), layouts);
+            book.save(bookFile);
+            System.out.println("Zapisano księgę otwarć z " + layouts + " map do " + bookFile);
+        } else {
+            throw new IllegalArgumentException("Nieznany tryb: " + mode);
         }
     }
 
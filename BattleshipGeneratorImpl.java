@@ -44,16 +44,17 @@ public class BattleshipGeneratorImpl implements BattleshipGenerator {
     private boolean placeAllShips(char[][] board) {
         int[] sizes = SHIP_SIZES.clone();
         shuffleArray(sizes);
+        long[] occupied = new long[2];
 
         for (int shipSize : sizes) {
-            if (!placeShip(board, shipSize)) {
+            if (!placeShip(board, occupied, shipSize)) {
                 return false;
             }
         }
         return true;
     }
 
-    private boolean placeShip(char[][] board, int size) {
+    private boolean placeShip(char[][] board, long[] occupied, int size) {
         int attempts = 0;
         final int MAX_ATTEMPTS = 1000;
 
@@ -62,8 +63,10 @@ public class BattleshipGeneratorImpl implements BattleshipGenerator {
             int col = random.nextInt(BOARD_SIZE);
             boolean horizontal = random.nextBoolean();
 
-            if (canPlaceShip(board, row, col, size, horizontal)) {
+            ShipPlacements.Placement placement = ShipPlacements.at(row, col, size, horizontal);
+            if (canPlaceShip(occupied, placement)) {
                 placeShipOnBoard(board, row, col, size, horizontal);
+                BitBoard.or(occupied, placement.mask);
                 return true;
             }
             attempts++;
@@ -71,40 +74,9 @@ public class BattleshipGeneratorImpl implements BattleshipGenerator {
         return false;
     }
 
-    private boolean canPlaceShip(char[][] board, int row, int col, int size, boolean horizontal) {
-        // Sprawdź czy statek mieści się na planszy
-        if (horizontal) {
-            if (col + size > BOARD_SIZE) return false;
-        } else {
-            if (row + size > BOARD_SIZE) return false;
-        }
-
-        // Sprawdź czy pola są wolne i nie stykają się z innymi statkami
-        for (int i = 0; i < size; i++) {
-            int currentRow = horizontal ? row : row + i;
-            int currentCol = horizontal ? col + i : col;
-
-            // Sprawdź samo pole
-            if (board[currentRow][currentCol] != WATER) {
-                return false;
-            }
-
-            // Sprawdź wszystkich sąsiadów (włącznie z rogami)
-            for (int dr = -1; dr <= 1; dr++) {
-                for (int dc = -1; dc <= 1; dc++) {
-                    int nr = currentRow + dr;
-                    int nc = currentCol + dc;
-
-                    if (nr >= 0 && nr < BOARD_SIZE && nc >= 0 && nc < BOARD_SIZE) {
-                        if (board[nr][nc] == MAST) {
-                            return false;
-                        }
-                    }
-                }
-            }
-        }
-
-        return true;
+    private boolean canPlaceShip(long[] occupied, ShipPlacements.Placement placement) {
+        // Statek musi mieścić się na planszy, a jego pola i wszyscy sąsiedzi (włącznie z rogami) muszą być wolni
+        return placement != null && !BitBoard.intersects(occupied, placement.area);
     }
 
     private void placeShipOnBoard(char[][] board, int row, int col, int size, boolean horizontal) {
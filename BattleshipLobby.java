@@ -0,0 +1,313 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+// Wszystkie połączenia obsługuje jeden wątek na Selectorze. Bajty od gracza trafiają do jego bufora
+// poza stertą i stamtąd prosto do gniazda przeciwnika, bez dekodowania wiadomości.
+public class BattleshipLobby {
+    // Powitanie wysyłane przez serwer łączący się z poczekalnią (-mode server -host ...)
+    public static final String SERVER_HELLO = "lobby;serwer";
+    // Potwierdzenie dla serwera, że dobrano mu klienta; klient go nie dostaje
+    public static final String PAIRED = "lobby;para";
+    private static final byte[] HELLO = (SERVER_HELLO + "\n").getBytes(StandardCharsets.UTF_8);
+    private static final long HELLO_TIMEOUT = 1000;
+    private static final int BUFFER_SIZE = 8192;
+
+    private int port;
+    private Selector selector;
+    private final Deque<Player> waitingServers;
+    private final Deque<Player> waitingClients;
+    private final List<Player> identifying;
+
+    public BattleshipLobby(int port) {
+        this.port = port;
+        this.waitingServers = new ArrayDeque<>();
+        this.waitingClients = new ArrayDeque<>();
+        this.identifying = new ArrayList<>();
+    }
+
+    public void start() throws IOException {
+        try (Selector selector = Selector.open(); ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            this.selector = selector;
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Poczekalnia nasłuchuje na porcie " + port);
+
+            while (true) {
+                selector.select(timeUntilHelloDeadline());
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        admit(serverChannel);
+                        continue;
+                    }
+                    Player player = (Player) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            onReadable(player);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            forward(player.partner);
+                        }
+                    } catch (IOException e) {
+                        disconnect(player, e.getMessage());
+                    }
+                }
+                expireHellos();
+            }
+        }
+    }
+
+    private void admit(ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        // zerwane połączenie gracza czekającego w kolejce też zostanie kiedyś wykryte
+        channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+        Player player = new Player(channel, channel.getRemoteAddress().toString());
+        player.key = channel.register(selector, SelectionKey.OP_READ, player);
+        player.helloDeadline = System.currentTimeMillis() + HELLO_TIMEOUT;
+        identifying.add(player);
+    }
+
+    // Gracze czekający na parę też są zarejestrowani do odczytu, więc rozłączenie usuwa ich z kolejki
+    private void onReadable(Player player) throws IOException {
+        if (player.channel.read(player.buffer) == -1) {
+            disconnect(player, "rozłączony");
+            return;
+        }
+        if (player.partner != null) {
+            forward(player);
+        } else if (!player.identified) {
+            identify(player);
+        } else {
+            keepLatestLine(player);
+            if (!player.buffer.hasRemaining()) {
+                disconnect(player, "za dużo danych przed połączeniem w parę");
+            }
+        }
+    }
+
+    // Czekający klient co 60 s ponawia swój strzał; przeciwnik ma dostać tylko jedną kopię, inaczej
+    // weźmie powtórzony start za odpowiedź na własny strzał. Zostaje ostatnia pełna linia (i to, co
+    // po niej), więc ponowienie albo start wysłany po nieudanej propozycji multipleksowania zastępuje
+    // wcześniejsze linie. Koniec linii to bajt '\n', więc nic nie trzeba dekodować.
+    private void keepLatestLine(Player player) {
+        ByteBuffer buffer = player.buffer;
+        int end = buffer.position();
+        int lastNewline = -1;
+        int previousNewline = -1;
+        for (int i = 0; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                previousNewline = lastNewline;
+                lastNewline = i;
+            }
+        }
+        if (previousNewline >= 0) {
+            buffer.limit(end);
+            buffer.position(previousNewline + 1);
+            buffer.compact();
+        }
+    }
+
+    // Klient nic nie wysyła, dopóki nie odda strzału, serwer od razu się przedstawia.
+    // Odczytane bajty, które nie są powitaniem, zostają w buforze i trafią później do przeciwnika.
+    private void identify(Player player) {
+        int length = player.buffer.position();
+        boolean helloPrefix = length <= HELLO.length;
+        for (int i = 0; helloPrefix && i < length; i++) {
+            helloPrefix = player.buffer.get(i) == HELLO[i];
+        }
+        if (helloPrefix && length < HELLO.length) {
+            return;
+        }
+        identified(player, helloPrefix);
+    }
+
+    // Brak powitania w wyznaczonym czasie - to zwykły klient
+    private void expireHellos() {
+        long now = System.currentTimeMillis();
+        for (Player player : new ArrayList<>(identifying)) {
+            if (now >= player.helloDeadline) {
+                identified(player, false);
+            }
+        }
+    }
+
+    private long timeUntilHelloDeadline() {
+        long next = Long.MAX_VALUE;
+        for (Player player : identifying) {
+            next = Math.min(next, player.helloDeadline);
+        }
+        if (next == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(1, next - System.currentTimeMillis());
+    }
+
+    private void identified(Player player, boolean server) {
+        identifying.remove(player);
+        player.identified = true;
+        player.server = server;
+        if (server) {
+            player.buffer.clear();
+        } else {
+            keepLatestLine(player);
+        }
+        System.out.println("Dołączył " + (server ? "serwer " : "klient ") + player.address);
+        pair(player);
+    }
+
+    private void pair(Player player) {
+        Deque<Player> opponents = player.server ? waitingClients : waitingServers;
+        Player opponent = opponents.pollFirst();
+        if (opponent == null) {
+            (player.server ? waitingServers : waitingClients).addLast(player);
+            return;
+        }
+        Player server = player.server ? player : opponent;
+        Player client = player.server ? opponent : player;
+
+        // gniazdo serwera nie dostało jeszcze żadnych danych, więc krótkie potwierdzenie mieści się od razu.
+        // Parę łączymy dopiero po jego wysłaniu, aby awaria serwera nie rozłączyła czekającego klienta.
+        try {
+            ByteBuffer paired = ByteBuffer.wrap((PAIRED + "\n").getBytes(StandardCharsets.UTF_8));
+            server.channel.write(paired);
+            if (paired.hasRemaining()) {
+                throw new IOException("Nie udało się wysłać potwierdzenia pary");
+            }
+        } catch (IOException e) {
+            disconnect(server, e.getMessage());
+            // klient zachowuje swoje miejsce: dostaje następny czekający serwer albo wraca na początek kolejki
+            if (waitingServers.isEmpty()) {
+                waitingClients.addFirst(client);
+            } else {
+                pair(client);
+            }
+            return;
+        }
+        server.partner = client;
+        client.partner = server;
+        System.out.println("Para: " + server.address + " <-> " + client.address);
+        forward(client);
+        updateInterest(server);
+    }
+
+    // Po stronie serwera: czeka bez limitu czasu, aż poczekalnia dobierze klienta.
+    // Czyta bajt po bajcie, aby nie pobrać z gniazda nic poza potwierdzeniem.
+    static void awaitPairing(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        if (b == -1) {
+            throw new IOException("Poczekalnia zamknęła połączenie");
+        }
+        String reply = line.toString(StandardCharsets.UTF_8);
+        if (!PAIRED.equals(reply)) {
+            throw new IOException("Nieoczekiwana odpowiedź poczekalni: " + reply);
+        }
+    }
+
+    // Wysyła przeciwnikowi tyle zebranych bajtów, ile przyjmie jego gniazdo. Gdy coś zostanie,
+    // czekamy na możliwość zapisu i do tego czasu nie czytamy od nadawcy, gdy jego bufor jest pełny.
+    private void forward(Player from) {
+        Player to = from.partner;
+        from.buffer.flip();
+        try {
+            to.channel.write(from.buffer);
+        } catch (IOException e) {
+            from.buffer.compact();
+            disconnect(to, e.getMessage());
+            return;
+        }
+        from.buffer.compact();
+        updateInterest(from);
+        updateInterest(to);
+    }
+
+    private void updateInterest(Player player) {
+        int ops = 0;
+        if (player.buffer.hasRemaining()) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (player.partner != null && player.partner.buffer.position() > 0) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        player.key.interestOps(ops);
+    }
+
+    private void disconnect(Player player, String reason) {
+        if (!player.channel.isOpen()) {
+            return;
+        }
+        identifying.remove(player);
+        if (waitingServers.remove(player) || waitingClients.remove(player)) {
+            System.out.println("Usunięto z kolejki " + player.address + ": " + reason);
+        }
+        closeQuietly(player);
+
+        Player partner = player.partner;
+        if (partner != null && partner.channel.isOpen()) {
+            // ostatnia wiadomość (np. ostatni zatopiony) mogła jeszcze nie dotrzeć
+            player.buffer.flip();
+            try {
+                partner.channel.write(player.buffer);
+            } catch (IOException e) {
+                // ignorujemy
+            }
+            closeQuietly(partner);
+        }
+    }
+
+    private void closeQuietly(Player player) {
+        try {
+            player.channel.close();
+        } catch (IOException e) {
+            // ignorujemy
+        }
+    }
+
+    private static class Player {
+        private final SocketChannel channel;
+        private final String address;
+        // Bajty od tego gracza, które jeszcze nie trafiły do przeciwnika (bufor w trybie zapisu)
+        private final ByteBuffer buffer;
+        private SelectionKey key;
+        private long helloDeadline;
+        private boolean identified;
+        private boolean server;
+        private Player partner;
+
+        Player(SocketChannel channel, String address) {
+            this.channel = channel;
+            this.address = address;
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+    }
+}
\ No newline at end of file
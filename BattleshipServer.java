@@ -3,46 +3,257 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BattleshipServer {
+    private String lobbyHost;
     private int port;
     private String mapFile;
     private BufferedReader consoleReader;
+    private boolean binaryEncoding;
+    private SpectatorHub spectators;
+    private ShotStrategy bot;
+    private SessionListener sessionListener;
+    private int maxSessions;
 
     public BattleshipServer(int port, String mapFile) {
+        this(null, port, mapFile);
+    }
+
+    public BattleshipServer(String lobbyHost, int port, String mapFile) {
+        this.lobbyHost = lobbyHost;
         this.port = port;
         this.mapFile = mapFile;
         this.consoleReader = new BufferedReader(new InputStreamReader(System.in));
     }
 
+    public void setBinaryEncoding(boolean binaryEncoding) {
+        this.binaryEncoding = binaryEncoding;
+    }
+
+    public void setSpectators(SpectatorHub spectators) {
+        this.spectators = spectators;
+    }
+
+    // Strzały wybiera strategia zamiast gracza przy konsoli
+    public void setBot(ShotStrategy bot) {
+        this.bot = bot;
+    }
+
+    public void setSessionListener(SessionListener sessionListener) {
+        this.sessionListener = sessionListener;
+    }
+
+    // Serwer prowadzi naraz do maxSessions gier z kolejnymi klientami (wymaga bota)
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
     public void start() throws IOException {
+        if (lobbyHost != null) {
+            startViaLobby();
+            return;
+        }
         try (ServerSocket serverSocket = new ServerSocket(port)) {
             System.out.println("Serwer nasłuchuje na porcie " + port);
+            if (maxSessions > 0) {
+                hostSessions(serverSocket);
+                return;
+            }
             Socket clientSocket = serverSocket.accept();
             System.out.println("Połączono z klientem");
 
+            NetworkProtocol protocol = new NetworkProtocol(clientSocket, binaryEncoding);
+            // bot może prowadzić wiele gier naraz, więc przyjmuje propozycję multipleksowania
+            if (bot != null) {
+                MultiplexedConnection connection = MultiplexedConnection.accept(clientSocket, protocol);
+                if (connection != null) {
+                    hostMultiplexed(connection);
+                    return;
+                }
+            }
+
             GameBoard board = new GameBoard(mapFile);
             board.displayInitialBoard();
+            if (spectators != null) {
+                board.setSpectators(spectators, String.valueOf(port), "serwer");
+            }
+
+            playGame(protocol, board);
+        }
+    }
+
+    // Prowadzi gry rozpoczynane przez klienta, dopóki ten nie zamknie połączenia
+    private void hostMultiplexed(MultiplexedConnection connection) throws IOException {
+        List<Thread> games = new ArrayList<>();
+        NetworkProtocol protocol;
+        while ((protocol = connection.acceptGame()) != null) {
+            String gameName = port + "-" + (games.size() + 1);
+            GameBoard board = new GameBoard(mapFile);
+            if (spectators != null) {
+                board.setSpectators(spectators, gameName, "serwer");
+            }
+            NetworkProtocol game = protocol;
+            Thread thread = new Thread(() -> {
+                try {
+                    playGame(game, board);
+                } catch (IOException e) {
+                    System.out.println("Gra " + gameName + " przerwana: " + e.getMessage());
+                }
+            }, "gra-" + gameName);
+            thread.start();
+            games.add(thread);
+        }
+        try {
+            for (Thread thread : games) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano oczekiwanie na gry");
+        } finally {
+            connection.close();
+        }
+    }
 
-            NetworkProtocol protocol = new NetworkProtocol(clientSocket);
+    private void hostSessions(ServerSocket serverSocket) throws IOException {
+        AdmissionControl admission = new AdmissionControl(maxSessions);
+        Set<NetworkProtocol> sessions = ConcurrentHashMap.newKeySet();
+        startIdleReaper(sessions);
+
+        int sessionNumber = 0;
+        while (true) {
+            Socket socket = serverSocket.accept();
+            String rejection;
+            try {
+                rejection = admission.tryAdmit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                socket.close();
+                throw new IOException("Przerwano przyjmowanie gier");
+            }
+            if (rejection != null) {
+                System.out.println("Odrzucono " + socket.getRemoteSocketAddress() + ": " + rejection);
+                rejectBusy(socket);
+                continue;
+            }
+
+            String gameName = port + "-" + (++sessionNumber);
+            System.out.println("Gra " + gameName + " z " + socket.getRemoteSocketAddress()
+                    + " (aktywne: " + admission.getActiveSessions() + ")");
+            new Thread(() -> runSession(socket, gameName, admission, sessions), "gra-" + gameName).start();
+        }
+    }
+
+    private void runSession(Socket socket, String gameName, AdmissionControl admission, Set<NetworkProtocol> sessions) {
+        NetworkProtocol protocol = null;
+        try {
+            GameBoard board = new GameBoard(mapFile);
+            if (spectators != null) {
+                board.setSpectators(spectators, gameName, "serwer");
+            }
+            protocol = new NetworkProtocol(socket, binaryEncoding);
+            protocol.setTurnLatencyListener(admission::recordTurnLatency);
+            sessions.add(protocol);
             playGame(protocol, board);
+        } catch (IOException e) {
+            System.out.println("Gra " + gameName + " przerwana: " + e.getMessage());
+        } finally {
+            if (protocol != null) {
+                sessions.remove(protocol);
+            }
+            admission.release();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignorujemy
+            }
+        }
+    }
+
+    // Odpowiedź przed zamknięciem połączenia, aby klient nie czekał na timeout
+    private void rejectBusy(Socket socket) {
+        try (socket) {
+            socket.getOutputStream().write("zajęty\n".getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+        } catch (IOException e) {
+            // klient już się rozłączył
         }
     }
 
+    // Zamyka gry, w których nic się nie dzieje dłużej niż trwają wszystkie ponowienia protokołu
+    private void startIdleReaper(Set<NetworkProtocol> sessions) {
+        Thread reaper = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                for (NetworkProtocol protocol : sessions) {
+                    if (now - protocol.getLastActivity() > NetworkProtocol.RETRY_WINDOW_MILLIS) {
+                        System.out.println("Zamykam bezczynną grę");
+                        sessions.remove(protocol);
+                        try {
+                            protocol.close();
+                        } catch (IOException e) {
+                            // ignorujemy
+                        }
+                    }
+                }
+            }
+        }, "bezczynne-gry");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    private void startViaLobby() throws IOException {
+        Socket socket = new Socket(lobbyHost, port);
+        socket.getOutputStream().write((BattleshipLobby.SERVER_HELLO + "\n").getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+        System.out.println("Połączono z poczekalnią " + lobbyHost + ":" + port + ", czekam na klienta");
+        // zegar gry (timeout i ponowienia) rusza dopiero po dobraniu klienta
+        BattleshipLobby.awaitPairing(socket);
+        System.out.println("Poczekalnia dobrała klienta");
+
+        GameBoard board = new GameBoard(mapFile);
+        board.displayInitialBoard();
+        if (spectators != null) {
+            board.setSpectators(spectators, String.valueOf(port), "serwer");
+        }
+
+        NetworkProtocol protocol = new NetworkProtocol(socket, binaryEncoding);
+        playGame(protocol, board);
+    }
+
     private void playGame(NetworkProtocol protocol, GameBoard board) throws IOException {
         boolean gameOver = false;
         boolean myTurn = false;
         String lastResult = "";
+        boolean firstShot = true;
+        if (sessionListener != null) {
+            sessionListener.gameStarted();
+        }
 
         System.out.println("\n=== ROZPOCZĘCIE GRY ===\n");
 
         while (!gameOver) {
             if (myTurn) {
+                long turnStart = System.nanoTime();
                 System.out.println("\n--- TURA SERWERA ---");
                 board.displayOwnBoard();
                 board.displayEnemyBoard(false);
 
                 String shotCoord = getValidShot(board);
+                if (firstShot && sessionListener != null) {
+                    sessionListener.firstShot(System.nanoTime() - turnStart);
+                }
+                firstShot = false;
                 System.out.println("Strzelam w: " + shotCoord);
 
                 String message = "start;" + shotCoord;
@@ -137,6 +348,9 @@ public class BattleshipServer {
     }
 
     private String getValidShot(GameBoard board) throws IOException {
+        if (bot != null) {
+            return bot.nextShot(board);
+        }
         while (true) {
             System.out.print("Podaj współrzędne strzału: ");
             String input = consoleReader.readLine().trim().toUpperCase();
@@ -147,7 +361,7 @@ public class BattleshipServer {
             }
 
             if (board.alreadyShotAt(input)) {
-                System.out.println("Już strzelałeś w to miejsce. Wybierz inne.");
+                System.out.println("Już strzelałeś w to miejsce lub sąsiaduje ono z zatopionym statkiem. Wybierz inne.");
                 continue;
             }
 
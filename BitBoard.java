@@ -0,0 +1,78 @@
+// Operacje na maskach pól planszy 10x10. Bit wiersz * 10 + kolumna jest zapisany w dwóch longach
+// (pola 0-63 w pierwszym, 64-99 w drugim), więc sumy i przecięcia zbiorów pól to kilka operacji AND/OR.
+public final class BitBoard {
+    static final int SIZE = 10;
+    static final int CELLS = SIZE * SIZE;
+    // Bity pól 64-99 w drugim longu
+    private static final long HIGH_CELLS = (1L << (CELLS - 64)) - 1;
+
+    private BitBoard() {
+    }
+
+    static void set(long[] mask, int r, int c) {
+        int index = r * SIZE + c;
+        mask[index >>> 6] |= 1L << (index & 63);
+    }
+
+    static boolean isSet(long[] mask, int r, int c) {
+        return containsCell(mask, r * SIZE + c);
+    }
+
+    static boolean containsCell(long[] mask, int cell) {
+        return (mask[cell >>> 6] & (1L << (cell & 63))) != 0;
+    }
+
+    static boolean intersects(long[] a, long[] b) {
+        return (a[0] & b[0]) != 0 || (a[1] & b[1]) != 0;
+    }
+
+    static boolean containsAll(long[] mask, long[] subset) {
+        return (subset[0] & ~mask[0]) == 0 && (subset[1] & ~mask[1]) == 0;
+    }
+
+    static void or(long[] target, long[] source) {
+        target[0] |= source[0];
+        target[1] |= source[1];
+    }
+
+    static long[] and(long[] a, long[] b) {
+        return new long[]{a[0] & b[0], a[1] & b[1]};
+    }
+
+    static long[] andNot(long[] mask, long[] removed) {
+        return new long[]{mask[0] & ~removed[0], mask[1] & ~removed[1]};
+    }
+
+    // Pola planszy spoza maski
+    static long[] complement(long[] mask) {
+        return new long[]{~mask[0], ~mask[1] & HIGH_CELLS};
+    }
+
+    static boolean isEmpty(long[] mask) {
+        return mask[0] == 0 && mask[1] == 0;
+    }
+
+    static int count(long[] mask) {
+        return Long.bitCount(mask[0]) + Long.bitCount(mask[1]);
+    }
+
+    // Numer n-tego (od zera) ustawionego pola, licząc od A1 wierszami
+    static int nthCell(long[] mask, int n) {
+        int low = Long.bitCount(mask[0]);
+        if (n < low) {
+            return nthBit(mask[0], n);
+        }
+        return 64 + nthBit(mask[1], n - low);
+    }
+
+    static String toCoordinate(int cell) {
+        return "" + (char) ('A' + cell % SIZE) + (cell / SIZE + 1);
+    }
+
+    private static int nthBit(long bits, int n) {
+        for (int i = 0; i < n; i++) {
+            bits &= bits - 1;
+        }
+        return Long.numberOfTrailingZeros(bits);
+    }
+}
\ No newline at end of file
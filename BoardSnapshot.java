@@ -0,0 +1,99 @@
+// Niezmienny obraz stanu GameBoard po danej turze. Pola planszy są zapisane jako maski bitowe
+// (bit wiersz * 10 + kolumna w dwóch longach), więc kopia jest tania, a odczyt nie wymaga blokad.
+public final class BoardSnapshot {
+    private static final int SIZE = 10;
+
+    private final long version;
+    private final long[] ships;
+    private final long[] enemyShots;
+    private final long[] enemyHits;
+    private final long[] hits;
+    private final long[] misses;
+    private final long[] water;
+
+    BoardSnapshot(long version, long[] ships, long[] enemyShots, long[] enemyHits, long[] hits, long[] misses,
+                  long[] water) {
+        this.version = version;
+        this.ships = ships.clone();
+        this.enemyShots = enemyShots.clone();
+        this.enemyHits = enemyHits.clone();
+        this.hits = hits.clone();
+        this.misses = misses.clone();
+        this.water = water.clone();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isShip(int r, int c) {
+        return BitBoard.isSet(ships, r, c);
+    }
+
+    public boolean isEnemyShot(int r, int c) {
+        return BitBoard.isSet(enemyShots, r, c);
+    }
+
+    public boolean isEnemyHit(int r, int c) {
+        return BitBoard.isSet(enemyHits, r, c);
+    }
+
+    public boolean isOurHit(int r, int c) {
+        return BitBoard.isSet(hits, r, c);
+    }
+
+    public boolean isOurMiss(int r, int c) {
+        return BitBoard.isSet(misses, r, c);
+    }
+
+    // Pole sąsiadujące z zatopionym statkiem przeciwnika
+    public boolean isKnownWater(int r, int c) {
+        return BitBoard.isSet(water, r, c);
+    }
+
+    // Pola przeciwnika, których stanu nie znamy: nie strzelaliśmy tam i nie leżą w otoczce zatopionego statku
+    public long[] getUnknownEnemyCells() {
+        long[] known = hits.clone();
+        BitBoard.or(known, misses);
+        BitBoard.or(known, water);
+        return BitBoard.complement(known);
+    }
+
+    public long[] getOurHits() {
+        return hits.clone();
+    }
+
+    public String getOwnBoardDisplay() {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                if (isEnemyHit(r, c)) {
+                    sb.append('@');
+                } else if (isEnemyShot(r, c)) {
+                    sb.append('~');
+                } else {
+                    sb.append(isShip(r, c) ? '#' : '.');
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString().trim();
+    }
+
+    public String getEnemyBoardDisplay() {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                if (isOurHit(r, c)) {
+                    sb.append('#');
+                } else if (isOurMiss(r, c) || isKnownWater(r, c)) {
+                    sb.append('.');
+                } else {
+                    sb.append('?');
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString().trim();
+    }
+}
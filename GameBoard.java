@@ -2,6 +2,7 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -15,6 +16,23 @@ public class GameBoard {
     private Set<String> enemyShots;
     private Set<String> enemyHits;
     private List<Ship> ships;
+    private SpectatorHub spectators;
+    private String gameName;
+    private String playerName;
+
+    // Maski bitowe tych samych zbiorów - kopiowane do migawek dla innych wątków
+    private long[] shipMask;
+    private long[] enemyShotMask;
+    private long[] enemyHitMask;
+    private long[] hitMask;
+    private long[] missMask;
+    // Otoczki zatopionych statków przeciwnika - nie może tam być żadnego statku
+    private long[] waterMask;
+    // Kadłuby zatopionych statków przeciwnika; trafienia spoza nich to statki do dobicia
+    private long[] sunkMask;
+    private int searchShots;
+    private long version;
+    private volatile BoardSnapshot snapshot;
 
     public GameBoard(String mapFile) throws IOException {
         board = new char[SIZE][SIZE];
@@ -24,10 +42,24 @@ public class GameBoard {
         enemyShots = new HashSet<>();
         enemyHits = new HashSet<>();
         ships = new ArrayList<>();
+        shipMask = new long[2];
+        enemyShotMask = new long[2];
+        enemyHitMask = new long[2];
+        hitMask = new long[2];
+        missMask = new long[2];
+        waterMask = new long[2];
+        sunkMask = new long[2];
         loadMap(mapFile);
+        publishSnapshot();
     }
 
 
+    public void setSpectators(SpectatorHub spectators, String gameName, String playerName) {
+        this.spectators = spectators;
+        this.gameName = gameName;
+        this.playerName = playerName;
+    }
+
     private void loadMap(String mapFile) throws IOException {
         String mapString;
         if (mapFile != null) {
@@ -51,6 +83,9 @@ public class GameBoard {
         for (int r = 0; r < SIZE; r++) {
             for (int c = 0; c < SIZE; c++) {
                 board[r][c] = mapString.charAt(index++);
+                if (board[r][c] == '#') {
+                    BitBoard.set(shipMask, r, c);
+                }
             }
         }
         detectShips();
@@ -62,13 +97,33 @@ public class GameBoard {
             for (int c = 0; c < SIZE; c++) {
                 if (board[r][c] == '#' && !visited[r][c]) {
                     Ship ship = new Ship();
-                    exploreShip(r, c, visited, ship);
+                    ShipPlacements.Placement placement = findPlacement(r, c);
+                    if (placement != null) {
+                        for (int i = 0; i < placement.getLength(); i++) {
+                            visited[placement.cellRow(i)][placement.cellCol(i)] = true;
+                            ship.addCoordinate(placement.cellRow(i), placement.cellCol(i));
+                        }
+                    } else {
+                        // statek o nieregularnym kształcie lub stykający się z innym
+                        exploreShip(r, c, visited, ship);
+                    }
                     ships.add(ship);
                 }
             }
         }
     }
 
+    // Prosty statek to ustawienie, którego pola są masztami, a otoczka jest wolna
+    private ShipPlacements.Placement findPlacement(int r, int c) {
+        for (ShipPlacements.Placement placement : ShipPlacements.covering(r, c)) {
+            if (BitBoard.containsAll(shipMask, placement.mask)
+                    && !BitBoard.intersects(shipMask, placement.halo)) {
+                return placement;
+            }
+        }
+        return null;
+    }
+
     private void exploreShip(int r, int c, boolean[][] visited, Ship ship) {
         if (r < 0 || r >= SIZE || c < 0 || c >= SIZE || visited[r][c] || board[r][c] != '#') {
             return;
@@ -83,12 +138,22 @@ public class GameBoard {
     }
 
     public String processShot(String coord) {
+        String result = resolveShot(coord);
+        publishSnapshot();
+        if (spectators != null) {
+            spectators.publish(gameName, "przeciwnik", coord, result);
+        }
+        return result;
+    }
+
+    private String resolveShot(String coord) {
         int[] rc = parseCoordinate(coord);
         int r = rc[0];
         int c = rc[1];
 
         boolean alreadyShot = enemyShots.contains(coord);
         enemyShots.add(coord);
+        BitBoard.set(enemyShotMask, r, c);
 
         Ship targetShip = null;
         for (Ship ship : ships) {
@@ -109,6 +174,7 @@ public class GameBoard {
 
             targetShip.hit(coord);
             enemyHits.add(coord);
+            BitBoard.set(enemyHitMask, r, c);
 
             if (targetShip.isSunk()) {
                 if (allShipsSunk()) {
@@ -129,12 +195,51 @@ public class GameBoard {
     }
 
     public void recordOurShot(String coord, String result) {
+        int[] rc = parseCoordinate(coord);
+        if (BitBoard.isEmpty(BitBoard.andNot(hitMask, sunkMask))) {
+            searchShots++;
+        }
         shotsFired.add(coord);
-        if (result.contains("trafiony")) {
+        if (result.contains("trafiony") || result.contains("zatopiony")) {
             hits.add(coord);
+            BitBoard.set(hitMask, rc[0], rc[1]);
+            if (result.contains("zatopiony")) {
+                markSunkHalo(rc[0], rc[1]);
+            }
         } else {
             misses.add(coord);
+            BitBoard.set(missMask, rc[0], rc[1]);
         }
+        publishSnapshot();
+        if (spectators != null) {
+            spectators.publish(gameName, playerName, coord, result);
+        }
+    }
+
+    // Kadłub to spójny fragment trafień zawierający zatapiający strzał; jego otoczka to pewna woda
+    private void markSunkHalo(int r, int c) {
+        long[] hull = new long[2];
+        BitBoard.set(hull, r, c);
+        while (true) {
+            long[] grown = BitBoard.and(ShipPlacements.dilate(hull), hitMask);
+            if (Arrays.equals(grown, hull)) {
+                break;
+            }
+            hull = grown;
+        }
+
+        long[] halo = BitBoard.andNot(ShipPlacements.dilate(hull), hitMask);
+        BitBoard.or(waterMask, halo);
+        BitBoard.or(sunkMask, hull);
+    }
+
+    // Jedyny zapis volatile na turę; czytelnicy widzą zawsze spójny stan
+    private void publishSnapshot() {
+        snapshot = new BoardSnapshot(++version, shipMask, enemyShotMask, enemyHitMask, hitMask, missMask, waterMask);
+    }
+
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
     }
 
     private boolean alreadyHitByEnemy(String coord) {
@@ -178,13 +283,16 @@ public class GameBoard {
     }
 
     public String getEnemyBoardDisplay(boolean allVisible) {
+        if (!allVisible) {
+            return snapshot.getEnemyBoardDisplay();
+        }
         StringBuilder sb = new StringBuilder();
         for (int r = 0; r < SIZE; r++) {
             for (int c = 0; c < SIZE; c++) {
                 String coord = toCoordinate(r, c);
                 if (hits.contains(coord)) {
                     sb.append('#');
-                } else if (misses.contains(coord)) {
+                } else if (misses.contains(coord) || BitBoard.isSet(waterMask, r, c)) {
                     sb.append('.');
                 } else if (allVisible) {
                     if (shotsFired.contains(coord)) {
@@ -250,8 +358,18 @@ public class GameBoard {
         return "" + (char)('A' + c) + (r + 1);
     }
 
+    // Pola w otoczce zatopionego statku traktujemy jak już ostrzelane
     public boolean alreadyShotAt(String coord) {
-        return shotsFired.contains(coord);
+        if (shotsFired.contains(coord)) {
+            return true;
+        }
+        int[] rc = parseCoordinate(coord);
+        return BitBoard.isSet(waterMask, rc[0], rc[1]);
+    }
+
+    // Strzały oddane, gdy żaden trafiony statek nie czekał na dobicie
+    public int getSearchShotCount() {
+        return searchShots;
     }
 
     public boolean alreadyHitByEnemyAt(String coord) {
@@ -0,0 +1,38 @@
+import java.io.IOException;
+
+// Gra dwóch strategii na losowych mapach, bez sieci i bez wypisywania plansz
+public class HeadlessGame {
+    private static final int MAX_SHOTS = 1000;
+
+    private final ShotStrategy first;
+    private final ShotStrategy second;
+
+    public HeadlessGame(ShotStrategy first, ShotStrategy second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    // Zwraca true, jeśli wygrała pierwsza strategia
+    public boolean play(boolean firstStarts) throws IOException {
+        GameBoard[] boards = {new GameBoard(null), new GameBoard(null)};
+        ShotStrategy[] strategies = {first, second};
+        int shooter = firstStarts ? 0 : 1;
+
+        for (int shots = 0; shots < MAX_SHOTS; shots++) {
+            GameBoard own = boards[shooter];
+            GameBoard enemy = boards[1 - shooter];
+
+            String coord = strategies[shooter].nextShot(own);
+            String result = enemy.processShot(coord);
+            own.recordOurShot(coord, result);
+
+            if ("ostatni zatopiony".equals(result)) {
+                return shooter == 0;
+            }
+            if ("pudło".equals(result)) {
+                shooter = 1 - shooter;
+            }
+        }
+        throw new IllegalStateException("Gra nie zakończyła się po " + MAX_SHOTS + " strzałach");
+    }
+}
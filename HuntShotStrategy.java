@@ -0,0 +1,59 @@
+import java.util.Random;
+
+// Szuka statków strzelając w szachownicę, a po trafieniu dobija statek strzałami w sąsiednie pola.
+// Z księgą otwarć pierwsze strzały poszukiwawcze idą w pola najczęściej zajmowane przez generator.
+public class HuntShotStrategy implements ShotStrategy {
+    private static final int SIZE = 10;
+    private static final int OPENING_SHOTS = 12;
+    // Pola szachownicy; każdy statek dłuższy niż 1 ma na niej co najmniej jeden maszt
+    private static final long[] PARITY = new long[2];
+
+    static {
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                if ((r + c) % 2 == 0) {
+                    BitBoard.set(PARITY, r, c);
+                }
+            }
+        }
+    }
+
+    private final Random random;
+    private final OpeningBook book;
+
+    public HuntShotStrategy(Random random) {
+        this(random, null);
+    }
+
+    public HuntShotStrategy(Random random, OpeningBook book) {
+        this.random = random;
+        this.book = book;
+    }
+
+    @Override
+    public String nextShot(GameBoard board) {
+        BoardSnapshot snapshot = board.getSnapshot();
+        long[] unknown = snapshot.getUnknownEnemyCells();
+        long[] targets = BitBoard.and(ShipPlacements.orthogonalNeighbours(snapshot.getOurHits()), unknown);
+
+        if (BitBoard.isEmpty(targets) && book != null && board.getSearchShotCount() < OPENING_SHOTS) {
+            String opening = book.suggest(unknown);
+            if (opening != null) {
+                return opening;
+            }
+        }
+
+        long[] candidates = targets;
+        if (BitBoard.isEmpty(candidates)) {
+            candidates = BitBoard.and(unknown, PARITY);
+        }
+        if (BitBoard.isEmpty(candidates)) {
+            candidates = unknown;
+        }
+        int count = BitBoard.count(candidates);
+        if (count == 0) {
+            throw new IllegalStateException("Brak pól do strzału");
+        }
+        return BitBoard.toCoordinate(BitBoard.nthCell(candidates, random.nextInt(count)));
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Jedno połączenie TCP przenoszące wiele gier naraz, linie mają postać: idGry|komenda;współrzędne
+// Rozszerzenie jest negocjowane wymianą multipleks;1 / multipleks;ok - jeżeli druga strona
+// go nie zna, połączenie zostaje przy zwykłym protokole.
+public class MultiplexedConnection {
+    public static final String OFFER = "multipleks;1";
+    public static final String ACCEPT = "multipleks;ok";
+    private static final int NEGOTIATION_TIMEOUT = 1000;
+    private static final char SEPARATOR = '|';
+    // Znacznik w kolejce wysyłania: wszystko przed nim zostało wysłane, można zamknąć gniazdo
+    private static final String END = "";
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final BufferedWriter out;
+    private final Map<Integer, BlockingQueue<String>> inboxes;
+    // Gry już zakończone - spóźnione lub ponowione ramki z ich numerami są pomijane
+    private final Set<Integer> closedGames;
+    private final BlockingQueue<NetworkProtocol> incomingGames;
+    private final BlockingQueue<String> outgoing;
+    private final AtomicInteger nextGameId;
+    // Reszta z dzielenia przez 2 numerów gier rozpoczynanych przez drugą stronę
+    private final int peerParity;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean readerFinished;
+
+    private MultiplexedConnection(Socket socket, int firstGameId) throws IOException {
+        this.socket = socket;
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        this.inboxes = new ConcurrentHashMap<>();
+        this.closedGames = ConcurrentHashMap.newKeySet();
+        this.incomingGames = new LinkedBlockingQueue<>();
+        this.outgoing = new LinkedBlockingQueue<>();
+        // strona otwierająca używa numerów nieparzystych, przyjmująca parzystych
+        this.nextGameId = new AtomicInteger(firstGameId);
+        this.peerParity = (firstGameId + 1) % 2;
+
+        startThread(this::readLoop, "mux-odczyt");
+        this.writer = startThread(this::writeLoop, "mux-zapis");
+    }
+
+    // Zwraca null, gdy druga strona nie zgodzi się na multipleksowanie -
+    // gniazdo nadaje się wtedy dalej do zwykłego NetworkProtocol
+    public static MultiplexedConnection open(Socket socket) throws IOException {
+        socket.getOutputStream().write((OFFER + "\n").getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+        System.out.println("Wysłano: " + OFFER);
+
+        socket.setSoTimeout(NEGOTIATION_TIMEOUT);
+        try {
+            String reply = readRawLine(socket.getInputStream());
+            System.out.println("Otrzymano: " + reply);
+            if (ACCEPT.equals(reply)) {
+                return new MultiplexedConnection(socket, 1);
+            }
+            // przeciwnik zignorował propozycję i czeka na start
+            return null;
+        } catch (SocketTimeoutException e) {
+            return null;
+        } finally {
+            socket.setSoTimeout(0);
+        }
+    }
+
+    // Czyta pierwszą linię gniazda. Jeżeli nie jest propozycją multipleksowania, zwraca null, a linia
+    // trafia do 'plain' (utworzonego na tym samym gnieździe), który odczyta ją jako pierwszą wiadomość gry.
+    public static MultiplexedConnection accept(Socket socket, NetworkProtocol plain) throws IOException {
+        String line = readRawLine(socket.getInputStream());
+        if (!OFFER.equals(line)) {
+            plain.unread(line);
+            return null;
+        }
+        System.out.println("Otrzymano: " + line);
+        socket.getOutputStream().write((ACCEPT + "\n").getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+        return new MultiplexedConnection(socket, 2);
+    }
+
+    // Czyta linię bajt po bajcie, aby nie pobrać z gniazda nic ponad nią
+    private static String readRawLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) {
+            throw new IOException("Połączenie zamknięte");
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    public NetworkProtocol openGame() {
+        int gameId = nextGameId.getAndAdd(2);
+        return new NetworkProtocol(this, gameId, registerInbox(gameId));
+    }
+
+    // Czeka na grę rozpoczętą przez drugą stronę; null, gdy druga strona zamknęła połączenie
+    public NetworkProtocol acceptGame() throws IOException {
+        try {
+            while (true) {
+                NetworkProtocol game = incomingGames.poll(1, TimeUnit.SECONDS);
+                if (game != null) {
+                    return game;
+                }
+                if (readerFinished) {
+                    return incomingGames.poll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano oczekiwanie na grę");
+        }
+    }
+
+    void send(int gameId, String message) {
+        outgoing.add(gameId + "" + SEPARATOR + message);
+    }
+
+    void closeGame(int gameId) {
+        closedGames.add(gameId);
+        inboxes.remove(gameId);
+    }
+
+    // Wysyła to, co jeszcze czeka w kolejce, i zamyka gniazdo
+    public void close() throws IOException {
+        outgoing.add(END);
+        try {
+            writer.join(NEGOTIATION_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closed = true;
+        socket.close();
+    }
+
+    private BlockingQueue<String> registerInbox(int gameId) {
+        BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+        inboxes.put(gameId, inbox);
+        return inbox;
+    }
+
+    private void readLoop() {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int separator = line.indexOf(SEPARATOR);
+                if (separator <= 0) {
+                    System.out.println("Nieprawidłowa ramka: " + line);
+                    continue;
+                }
+                int gameId;
+                try {
+                    gameId = Integer.parseInt(line.substring(0, separator));
+                } catch (NumberFormatException e) {
+                    System.out.println("Nieprawidłowa ramka: " + line);
+                    continue;
+                }
+
+                BlockingQueue<String> inbox = inboxes.get(gameId);
+                if (inbox == null) {
+                    // nową grę może rozpocząć tylko druga strona, i to nie taką, która już się skończyła
+                    if (gameId % 2 != peerParity || closedGames.contains(gameId)) {
+                        System.out.println("Pominięto ramkę zakończonej lub nieznanej gry: " + line);
+                        continue;
+                    }
+                    inbox = registerInbox(gameId);
+                    incomingGames.add(new NetworkProtocol(this, gameId, inbox));
+                }
+                inbox.add(line.substring(separator + 1));
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.out.println("Błąd połączenia multipleksowanego: " + e.getMessage());
+            }
+        } finally {
+            readerFinished = true;
+        }
+    }
+
+    // Zbiera wszystkie oczekujące wiadomości i wysyła je jednym flush
+    private void writeLoop() {
+        List<String> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                batch.add(outgoing.take());
+                outgoing.drainTo(batch);
+                for (String frame : batch) {
+                    if (frame.isEmpty()) {
+                        out.flush();
+                        return;
+                    }
+                    out.write(frame);
+                    out.write('\n');
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            if (!closed) {
+                System.out.println("Błąd połączenia multipleksowanego: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Thread startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
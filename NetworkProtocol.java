@@ -1,19 +1,82 @@
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
 public class NetworkProtocol {
+    private static final int TIMEOUT = 60000;
+    // Czas, po którym sendAndReceive wyczerpie wszystkie 3 próby
+    public static final long RETRY_WINDOW_MILLIS = 3L * TIMEOUT;
+
+    // Kodowanie binarne: 1 bajt komendy + 1 bajt indeksu pola (wiersz * 10 + kolumna)
+    private static final String BINARY_MARKER = ";bin";
+    private static final String[] BINARY_COMMANDS = {
+            null, "start", "pudło", "trafiony", "trafiony zatopiony", "ostatni zatopiony"
+    };
+    private static final int NO_CELL = 0xFF;
+
     private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
+    private InputStream in;
+    private OutputStream out;
     private String lastSentMessage;
+    private LongConsumer turnLatencyListener;
+    private long lastReceived;
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    private boolean binarySupported;
+    private boolean binary;
+    private boolean acceptingBinary;
+    // Negocjacja trwa do pierwszej odebranej linii: odpowiedzi na naszą propozycję (strona proponująca)
+    // albo pierwszej wiadomości drugiej strony (strona przyjmująca)
+    private boolean negotiating;
+    private boolean offered;
+    // Linia przeczytana już z gniazda przez kogoś innego (MultiplexedConnection.accept)
+    private String unreadLine;
+
+    // Ustawione tylko dla gier przenoszonych przez MultiplexedConnection
+    private MultiplexedConnection connection;
+    private int gameId;
+    private BlockingQueue<String> inbox;
 
     public NetworkProtocol(Socket socket) throws IOException {
+        this(socket, false);
+    }
+
+    // binarySupported: proponuje (klient) lub akceptuje (serwer) kodowanie binarne przy komendzie start
+    public NetworkProtocol(Socket socket, boolean binarySupported) throws IOException {
         this.socket = socket;
-        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        this.out = new PrintWriter(socket.getOutputStream(), true);
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.binarySupported = binarySupported;
+        this.negotiating = binarySupported;
+    }
+
+    NetworkProtocol(MultiplexedConnection connection, int gameId, BlockingQueue<String> inbox) {
+        this.connection = connection;
+        this.gameId = gameId;
+        this.inbox = inbox;
+    }
+
+    // Otrzymuje czas (ns) od odebrania wiadomości do wysłania naszej - czyli czas naszej tury
+    public void setTurnLatencyListener(LongConsumer turnLatencyListener) {
+        this.turnLatencyListener = turnLatencyListener;
+    }
+
+    void unread(String line) {
+        this.unreadLine = line;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
     }
 
     public String sendAndReceive(String message) throws IOException {
@@ -30,14 +93,15 @@ public class NetworkProtocol {
         }
 
         try {
-            socket.setSoTimeout(60000);
-            String response = in.readLine();
+            String response = readMessage();
             if (response == null) {
                 throw new IOException("Połączenie zamknięte");
             }
             System.out.println("Otrzymano: " + response);
+            lastReceived = System.nanoTime();
+            lastActivity = System.currentTimeMillis();
             return response;
-        } catch (java.net.SocketTimeoutException e) {
+        } catch (SocketTimeoutException e) {
             System.out.println("Timeout, ponawiam... (próba " + (retryCount + 1) + "/3)");
             if (lastSentMessage != null) {
                 return sendAndReceive(lastSentMessage, retryCount + 1);
@@ -54,13 +118,149 @@ public class NetworkProtocol {
         }
     }
 
+    private String readMessage() throws IOException {
+        if (connection != null) {
+            return pollInbox();
+        }
+
+        socket.setSoTimeout(TIMEOUT);
+        if (binary) {
+            return readBinary();
+        }
+
+        String line = readLine();
+        if (line == null || !negotiating) {
+            return line;
+        }
+
+        // Negocjacja: klient dopisuje ;bin do pierwszego startu, serwer dopisuje je do odpowiedzi
+        boolean marked = line.endsWith(BINARY_MARKER);
+        if (marked) {
+            line = line.substring(0, line.length() - BINARY_MARKER.length());
+        }
+        if (offered) {
+            // tylko pierwsza odpowiedź na propozycję przełącza stronę proponującą
+            binary = marked;
+        } else {
+            // strona przyjmująca przechodzi na binarne dopiero po wysłaniu potwierdzenia; pierwsza
+            // linia inna niż start (np. propozycja multipleksowania) kończy negocjację bez zmiany
+            acceptingBinary = marked && line.startsWith("start;");
+        }
+        negotiating = false;
+        return line;
+    }
+
+    private String pollInbox() throws IOException {
+        try {
+            String line = inbox.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+            if (line == null) {
+                throw new SocketTimeoutException();
+            }
+            return line;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano oczekiwanie");
+        }
+    }
+
+    private String readLine() throws IOException {
+        String text = unreadLine;
+        unreadLine = null;
+        if (text == null) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                line.write(b);
+            }
+            if (b == -1 && line.size() == 0) {
+                return null;
+            }
+            text = line.toString(StandardCharsets.UTF_8);
+        }
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    private String readBinary() throws IOException {
+        int command = in.read();
+        if (command == -1) {
+            return null;
+        }
+        int cell = in.read();
+        if (cell == -1) {
+            throw new EOFException("Niepełna wiadomość binarna");
+        }
+
+        if (command <= 0 || command >= BINARY_COMMANDS.length) {
+            return "?" + command;
+        }
+        if (cell == NO_CELL) {
+            return BINARY_COMMANDS[command];
+        }
+        return BINARY_COMMANDS[command] + ";" + (char) ('A' + cell % 10) + (cell / 10 + 1);
+    }
+
     public void sendMessage(String message) {
-        out.println(message);
+        try {
+            if (connection != null) {
+                connection.send(gameId, message);
+            } else if (binary) {
+                out.write(encodeBinary(message));
+                out.flush();
+            } else {
+                boolean switchToBinary = acceptingBinary;
+                boolean offer = negotiating && message.startsWith("start;");
+                String line = switchToBinary || offer ? message + BINARY_MARKER : message;
+                out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (switchToBinary) {
+                    acceptingBinary = false;
+                    binary = true;
+                }
+                if (offer) {
+                    offered = true;
+                }
+            }
+        } catch (IOException e) {
+            // jak wcześniej PrintWriter: błąd zapisu wyjdzie przy odbiorze odpowiedzi
+            System.out.println("Błąd wysyłania: " + e.getMessage());
+        }
         lastSentMessage = message;
+        lastActivity = System.currentTimeMillis();
         System.out.println("Wysłano: " + message);
+        if (turnLatencyListener != null && lastReceived != 0) {
+            turnLatencyListener.accept(System.nanoTime() - lastReceived);
+            lastReceived = 0;
+        }
+    }
+
+    private byte[] encodeBinary(String message) {
+        String[] parts = message.split(";");
+        int command = -1;
+        for (int i = 1; i < BINARY_COMMANDS.length; i++) {
+            if (BINARY_COMMANDS[i].equals(parts[0])) {
+                command = i;
+                break;
+            }
+        }
+        if (command == -1) {
+            throw new IllegalArgumentException("Nie można zakodować binarnie: " + message);
+        }
+
+        int cell = NO_CELL;
+        if (parts.length > 1) {
+            String coord = parts[1];
+            int col = Character.toUpperCase(coord.charAt(0)) - 'A';
+            int row = Integer.parseInt(coord.substring(1)) - 1;
+            cell = row * 10 + col;
+        }
+        return new byte[]{(byte) command, (byte) cell};
     }
 
     public void close() throws IOException {
-        socket.close();
+        if (connection == null) {
+            socket.close();
+        } else {
+            connection.closeGame(gameId);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Częstość masztu na każdym polu policzona na mapach z BattleshipGeneratorImpl.
+// Odzwierciedla rzeczywiste skrzywienia generatora, więc pierwsze strzały nie są zgadywaniem.
+public class OpeningBook {
+    public static final String DEFAULT_FILE = "opening.book";
+    private static final int MAGIC = 0x4F4B5254;
+    private static final int SIZE = 10;
+    private static final int CELLS = SIZE * SIZE;
+    // Liczba map liczonych w locie, gdy brak pliku z księgą
+    private static final int FALLBACK_LAYOUTS = 20000;
+
+    private static OpeningBook defaultBook;
+
+    private final long layouts;
+    private final int[] counts;
+    // Pola od najczęściej do najrzadziej zajmowanego
+    private final int[] order;
+
+    private OpeningBook(long layouts, int[] counts) {
+        this.layouts = layouts;
+        this.counts = counts;
+        Integer[] cells = new Integer[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = i;
+        }
+        Arrays.sort(cells, Comparator.comparingInt((Integer cell) -> counts[cell]).reversed());
+        this.order = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            order[i] = cells[i];
+        }
+    }
+
+    public static OpeningBook build(BattleshipGenerator generator, int layouts) {
+        int[] counts = new int[CELLS];
+        for (int i = 0; i < layouts; i++) {
+            String map = generator.generateMap();
+            for (int cell = 0; cell < CELLS; cell++) {
+                if (map.charAt(cell) == '#') {
+                    counts[cell]++;
+                }
+            }
+        }
+        return new OpeningBook(layouts, counts);
+    }
+
+    public static OpeningBook load(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Nieprawidłowy plik księgi otwarć: " + path);
+            }
+            long layouts = in.readLong();
+            int[] counts = new int[CELLS];
+            for (int i = 0; i < CELLS; i++) {
+                counts[i] = in.readInt();
+            }
+            return new OpeningBook(layouts, counts);
+        }
+    }
+
+    public void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(layouts);
+            for (int count : counts) {
+                out.writeInt(count);
+            }
+        }
+    }
+
+    // Wczytuje opening.book z katalogu roboczego, a gdy go brak - liczy mniejszą księgę w pamięci
+    public static synchronized OpeningBook getDefault() {
+        if (defaultBook == null) {
+            if (new File(DEFAULT_FILE).isFile()) {
+                try {
+                    defaultBook = load(DEFAULT_FILE);
+                } catch (IOException e) {
+                    System.err.println("Nie udało się wczytać księgi otwarć: " + e.getMessage());
+                }
+            }
+            if (defaultBook == null) {
+                defaultBook = build(BattleshipGenerator.defaultInstance(), FALLBACK_LAYOUTS);
+            }
+        }
+        return defaultBook;
+    }
+
+    // Najczęściej zajmowane pole spośród nieznanych (maska z BoardSnapshot.getUnknownEnemyCells)
+    public String suggest(long[] unknown) {
+        for (int cell : order) {
+            if (BitBoard.containsCell(unknown, cell)) {
+                return BitBoard.toCoordinate(cell);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,19 @@
+import java.util.Random;
+
+public class RandomShotStrategy implements ShotStrategy {
+    private final Random random;
+
+    public RandomShotStrategy(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public String nextShot(GameBoard board) {
+        long[] unknown = board.getSnapshot().getUnknownEnemyCells();
+        int count = BitBoard.count(unknown);
+        if (count == 0) {
+            throw new IllegalStateException("Brak pól do strzału");
+        }
+        return BitBoard.toCoordinate(BitBoard.nthCell(unknown, random.nextInt(count)));
+    }
+}
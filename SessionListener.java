@@ -0,0 +1,8 @@
+// Zdarzenia gry prowadzonej przez BattleshipServer lub BattleshipClient, zgłaszane np. demonowi (-mode daemon)
+public interface SessionListener {
+    // Połączenie z przeciwnikiem nawiązane, plansza gotowa - zaczyna się pierwsza tura
+    void gameStarted();
+
+    // Czas od początku naszej pierwszej tury do wybrania pierwszego strzału, bez czekania na przeciwnika
+    void firstShot(long turnNanos);
+}
\ No newline at end of file
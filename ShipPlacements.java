@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Tablica wszystkich możliwych ustawień statku na planszy 10x10, liczona raz przy ładowaniu klasy.
+// Każde ustawienie ma maskę zajętych pól i maskę otoczki (sąsiedzi łącznie z rogami), więc sprawdzanie
+// kolizji i wykrywanie statków sprowadza się do kilku operacji AND/OR na dwóch longach.
+public final class ShipPlacements {
+    static final int SIZE = 10;
+    static final int CELLS = SIZE * SIZE;
+
+    // [długość][0 - poziomo, 1 - pionowo][pole początkowe], null gdy statek nie mieści się na planszy
+    private static final Placement[][][] BY_START = new Placement[SIZE + 1][2][CELLS];
+    // Wszystkie ustawienia pokrywające dane pole
+    private static final Placement[][] BY_CELL = new Placement[CELLS][];
+    // Pole wraz z ośmioma sąsiadami
+    private static final long[][] NEIGHBOURHOOD = new long[CELLS][];
+    // Tylko sąsiedzi z tego samego wiersza lub kolumny, bez samego pola
+    private static final long[][] ORTHOGONAL = new long[CELLS][];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            long[] area = new long[2];
+            int r = cell / SIZE;
+            int c = cell % SIZE;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    int nr = r + dr;
+                    int nc = c + dc;
+                    if (nr >= 0 && nr < SIZE && nc >= 0 && nc < SIZE) {
+                        BitBoard.set(area, nr, nc);
+                    }
+                }
+            }
+            NEIGHBOURHOOD[cell] = area;
+
+            long[] cross = new long[2];
+            for (int[] step : new int[][]{{-1, 0}, {1, 0}, {0, -1}, {0, 1}}) {
+                int nr = r + step[0];
+                int nc = c + step[1];
+                if (nr >= 0 && nr < SIZE && nc >= 0 && nc < SIZE) {
+                    BitBoard.set(cross, nr, nc);
+                }
+            }
+            ORTHOGONAL[cell] = cross;
+        }
+
+        List<List<Placement>> byCell = new ArrayList<>();
+        for (int cell = 0; cell < CELLS; cell++) {
+            byCell.add(new ArrayList<>());
+        }
+        for (int length = 1; length <= SIZE; length++) {
+            for (int orientation = 0; orientation < 2; orientation++) {
+                boolean horizontal = orientation == 0;
+                for (int r = 0; r < SIZE; r++) {
+                    for (int c = 0; c < SIZE; c++) {
+                        if ((horizontal ? c : r) + length > SIZE) {
+                            continue;
+                        }
+                        Placement placement = new Placement(r, c, length, horizontal);
+                        BY_START[length][orientation][r * SIZE + c] = placement;
+                        // jednomasztowiec poziomo i pionowo to to samo ustawienie
+                        if (length > 1 || horizontal) {
+                            for (int i = 0; i < length; i++) {
+                                int cell = horizontal ? r * SIZE + c + i : (r + i) * SIZE + c;
+                                byCell.get(cell).add(placement);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            BY_CELL[cell] = byCell.get(cell).toArray(new Placement[0]);
+        }
+    }
+
+    private ShipPlacements() {
+    }
+
+    public static Placement at(int r, int c, int length, boolean horizontal) {
+        if (length < 1 || length > SIZE || r < 0 || r >= SIZE || c < 0 || c >= SIZE) {
+            return null;
+        }
+        return BY_START[length][horizontal ? 0 : 1][r * SIZE + c];
+    }
+
+    // Zwraca wspólną tablicę - nie należy jej modyfikować
+    static Placement[] covering(int r, int c) {
+        return BY_CELL[r * SIZE + c];
+    }
+
+    // Maska powiększona o wszystkich sąsiadów jej pól
+    public static long[] dilate(long[] mask) {
+        return spread(mask, NEIGHBOURHOOD);
+    }
+
+    // Pola stykające się bokiem z którymkolwiek polem maski
+    public static long[] orthogonalNeighbours(long[] mask) {
+        return spread(mask, ORTHOGONAL);
+    }
+
+    private static long[] spread(long[] mask, long[][] table) {
+        long[] result = new long[2];
+        for (int word = 0; word < 2; word++) {
+            long bits = mask[word];
+            while (bits != 0) {
+                int cell = word * 64 + Long.numberOfTrailingZeros(bits);
+                BitBoard.or(result, table[cell]);
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    public static final class Placement {
+        final int row;
+        final int col;
+        final int length;
+        final boolean horizontal;
+        final long[] mask;
+        final long[] halo;
+        // mask | halo - pola, które muszą być wolne, żeby postawić tu statek
+        final long[] area;
+
+        private Placement(int row, int col, int length, boolean horizontal) {
+            this.row = row;
+            this.col = col;
+            this.length = length;
+            this.horizontal = horizontal;
+            this.mask = new long[2];
+            for (int i = 0; i < length; i++) {
+                BitBoard.set(mask, horizontal ? row : row + i, horizontal ? col + i : col);
+            }
+            this.area = dilate(mask);
+            this.halo = BitBoard.andNot(area, mask);
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int cellRow(int i) {
+            return horizontal ? row : row + i;
+        }
+
+        public int cellCol(int i) {
+            return horizontal ? col + i : col;
+        }
+    }
+}
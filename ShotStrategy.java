@@ -0,0 +1,21 @@
+import java.util.List;
+import java.util.Random;
+
+public interface ShotStrategy {
+    // Nazwy przyjmowane przez forName
+    List<String> NAMES = List.of("losowa", "polowanie", "ksiazka");
+
+    // Zwraca współrzędne (np. "D6") pola, w które jeszcze nie strzelano
+    String nextShot(GameBoard board);
+
+    static ShotStrategy forName(String name, Random random) {
+        if ("losowa".equals(name)) {
+            return new RandomShotStrategy(random);
+        } else if ("polowanie".equals(name)) {
+            return new HuntShotStrategy(random);
+        } else if ("ksiazka".equals(name)) {
+            return new HuntShotStrategy(random, OpeningBook.getDefault());
+        }
+        throw new IllegalArgumentException("Nieznana strategia: " + name);
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Rozsyła przebieg gier do obserwatorów. Zdarzenie jest kodowane raz i trafia do ograniczonej
+// kolejki każdego obserwatora; gdy kolejka jest pełna, najstarsze zdarzenie jest porzucane,
+// więc wolny obserwator nigdy nie zatrzymuje graczy.
+public class SpectatorHub {
+    private static final int QUEUE_CAPACITY = 256;
+
+    private int port;
+    private final List<Spectator> spectators;
+
+    public SpectatorHub(int port) {
+        this.port = port;
+        this.spectators = new CopyOnWriteArrayList<>();
+    }
+
+    public void start() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(port);
+        System.out.println("Obserwatorzy mogą łączyć się na porcie " + port);
+        startThread(() -> acceptLoop(serverSocket), "obserwatorzy");
+    }
+
+    private void acceptLoop(ServerSocket serverSocket) {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Spectator spectator = new Spectator(socket);
+                spectators.add(spectator);
+                startThread(spectator::writeLoop, "obserwator-" + socket.getPort());
+            }
+        } catch (IOException e) {
+            System.out.println("Błąd przyjmowania obserwatorów: " + e.getMessage());
+        }
+    }
+
+    // Format zdarzenia: idGry|strzelec;współrzędne;wynik
+    public void publish(String gameName, String shooter, String coord, String result) {
+        if (spectators.isEmpty()) {
+            return;
+        }
+        byte[] event = (gameName + "|" + shooter + ";" + coord + ";" + result + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        for (Spectator spectator : spectators) {
+            spectator.offer(event);
+        }
+    }
+
+    private static void startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private class Spectator {
+        private final Socket socket;
+        private final BlockingQueue<byte[]> queue;
+        private final AtomicLong dropped;
+
+        Spectator(Socket socket) {
+            this.socket = socket;
+            this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            this.dropped = new AtomicLong();
+        }
+
+        void offer(byte[] event) {
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+
+        void writeLoop() {
+            try {
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                while (true) {
+                    out.write(queue.take());
+                    // dopisz wszystko, co zebrało się w międzyczasie, i wyślij jednym flush
+                    byte[] next;
+                    while ((next = queue.poll()) != null) {
+                        out.write(next);
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                System.out.println("Obserwator rozłączony (pominięte zdarzenia: " + dropped.get() + ")");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                spectators.remove(this);
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // ignorujemy
+                }
+            }
+        }
+    }
+}
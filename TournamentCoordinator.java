@@ -0,0 +1,264 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Dzieli turniej (każda para strategii x liczba gier) na części i rozdziela je między procesy
+// robocze uruchomione na tej samej maszynie. Część przerwana przez śmierć procesu wraca do kolejki.
+public class TournamentCoordinator {
+    private static final int SHARD_SIZE = 50;
+    private static final int MAX_RESTARTS_PER_WORKER = 3;
+    // Część trwa zwykle ułamek sekundy; proces, który milczy dłużej, uznajemy za zawieszony
+    private static final int SHARD_TIMEOUT = 60000;
+
+    private String[] strategies;
+    private int games;
+    private int workers;
+    private final BlockingDeque<Shard> pending;
+    private final List<Process> processes;
+    private final AtomicInteger restartsLeft;
+    private final AtomicInteger liveWorkers;
+    private int[][] wins;
+    private CountDownLatch remaining;
+    private volatile String failure;
+
+    public TournamentCoordinator(String[] strategies, int games, int workers) {
+        this.strategies = strategies;
+        this.games = games;
+        this.workers = workers;
+        this.pending = new LinkedBlockingDeque<>();
+        this.processes = new ArrayList<>();
+        this.restartsLeft = new AtomicInteger(workers * MAX_RESTARTS_PER_WORKER);
+        this.liveWorkers = new AtomicInteger();
+    }
+
+    public void start() throws IOException {
+        if (strategies.length < 2) {
+            throw new IllegalArgumentException("Turniej wymaga co najmniej dwóch strategii");
+        }
+        // sprawdzamy same nazwy - utworzenie strategii ksiazka liczyłoby księgę w procesie, który nie gra
+        for (String strategy : strategies) {
+            if (!ShotStrategy.NAMES.contains(strategy)) {
+                throw new IllegalArgumentException("Nieznana strategia: " + strategy);
+            }
+        }
+
+        wins = new int[strategies.length][strategies.length];
+        int id = 0;
+        for (int a = 0; a < strategies.length; a++) {
+            for (int b = 0; b < strategies.length; b++) {
+                // gra strategii z samą sobą nic nie mówi o jej sile
+                if (a == b) {
+                    continue;
+                }
+                for (int offset = 0; offset < games; offset += SHARD_SIZE) {
+                    pending.add(new Shard(id++, a, b, Math.min(SHARD_SIZE, games - offset)));
+                }
+            }
+        }
+        remaining = new CountDownLatch(id);
+        System.out.println("Turniej: " + id + " części, " + workers + " procesów roboczych");
+
+        try (ServerSocket serverSocket = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            for (int i = 0; i < workers; i++) {
+                launchWorker(serverSocket.getLocalPort());
+            }
+
+            Thread acceptor = new Thread(() -> acceptWorkers(serverSocket), "koordynator");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            remaining.await();
+            if (failure != null) {
+                throw new IOException("Turniej przerwany: " + failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano turniej");
+        } finally {
+            synchronized (processes) {
+                for (Process process : processes) {
+                    process.destroy();
+                }
+            }
+        }
+
+        printResults();
+    }
+
+    private void launchWorker(int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "BattleshipGame", "-mode", "worker", "-host", "127.0.0.1", "-port", String.valueOf(port));
+        builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process process = builder.start();
+        liveWorkers.incrementAndGet();
+        synchronized (processes) {
+            processes.add(process);
+        }
+        // Każdy proces, który skończył przed końcem turnieju, trzeba zastąpić - także taki,
+        // który padł, zanim dostał pracę, albo zamknął się po przekroczeniu czasu części
+        process.onExit().thenRun(() -> {
+            int alive = liveWorkers.decrementAndGet();
+            if (remaining.getCount() == 0 || replaceWorker(port)) {
+                return;
+            }
+            if (alive == 0) {
+                abort("nie działa żaden proces roboczy, a limit ponownych uruchomień został wyczerpany");
+            }
+        });
+    }
+
+    private boolean replaceWorker(int port) {
+        if (restartsLeft.getAndDecrement() <= 0) {
+            System.err.println("Zbyt wiele awarii procesów roboczych");
+            return false;
+        }
+        try {
+            System.out.println("Uruchamiam nowy proces roboczy");
+            launchWorker(port);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Nie udało się uruchomić procesu roboczego: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Zwalnia start(), który zgłosi błąd zamiast czekać na części, których nikt nie rozegra
+    private void abort(String reason) {
+        failure = reason;
+        while (remaining.getCount() > 0) {
+            remaining.countDown();
+        }
+    }
+
+    private void acceptWorkers(ServerSocket serverSocket) {
+        try {
+            while (remaining.getCount() > 0) {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> serveWorker(socket), "robotnik-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException e) {
+            // gniazdo zamknięte po zakończeniu turnieju
+        }
+    }
+
+    private void serveWorker(Socket socket) {
+        Shard shard = null;
+        Process process = null;
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            socket.setSoTimeout(SHARD_TIMEOUT);
+            process = findProcess(in.readLine());
+
+            while (remaining.getCount() > 0) {
+                shard = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (shard == null) {
+                    continue;
+                }
+                out.println("zadanie;" + shard.id + ";" + strategies[shard.first] + ";"
+                        + strategies[shard.second] + ";" + shard.games);
+
+                String line = in.readLine();
+                if (line == null) {
+                    throw new IOException("Proces roboczy zakończył działanie");
+                }
+                String[] parts = line.split(";");
+                if (!"wynik".equals(parts[0]) || Integer.parseInt(parts[1]) != shard.id) {
+                    throw new IOException("Nieoczekiwana odpowiedź: " + line);
+                }
+                recordResult(shard, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                shard = null;
+            }
+            out.println("koniec");
+        } catch (SocketTimeoutException e) {
+            if (shard != null) {
+                System.out.println("Część " + shard.id + " przekroczyła czas, wraca do kolejki");
+                pending.addFirst(shard);
+            }
+            // zawieszony proces nie zwolni się sam; jego zastępca zostanie uruchomiony po zakończeniu
+            if (process != null) {
+                process.destroyForcibly();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (shard != null) {
+                System.out.println("Część " + shard.id + " wraca do kolejki: " + e.getMessage());
+                pending.addFirst(shard);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Proces roboczy przedstawia się linią robotnik;pid
+    private Process findProcess(String hello) throws IOException {
+        if (hello == null || !hello.startsWith("robotnik;")) {
+            throw new IOException("Nieoczekiwane powitanie: " + hello);
+        }
+        long pid = Long.parseLong(hello.substring("robotnik;".length()));
+        synchronized (processes) {
+            for (Process process : processes) {
+                if (process.pid() == pid) {
+                    return process;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void recordResult(Shard shard, int firstWins, int secondWins) {
+        synchronized (this) {
+            wins[shard.first][shard.second] += firstWins;
+            wins[shard.second][shard.first] += secondWins;
+        }
+        remaining.countDown();
+    }
+
+    private synchronized void printResults() {
+        System.out.println("\n=== WYNIKI TURNIEJU ===");
+        System.out.println("(wiersz: wygrane tej strategii przeciw strategii z kolumny)");
+        StringBuilder header = new StringBuilder(String.format("%-12s", ""));
+        for (String strategy : strategies) {
+            header.append(String.format("%12s", strategy));
+        }
+        System.out.println(header);
+        for (int a = 0; a < strategies.length; a++) {
+            StringBuilder row = new StringBuilder(String.format("%-12s", strategies[a]));
+            for (int b = 0; b < strategies.length; b++) {
+                row.append(a == b ? String.format("%12s", "-") : String.format("%12d", wins[a][b]));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static class Shard {
+        private final int id;
+        private final int first;
+        private final int second;
+        private final int games;
+
+        Shard(int id, int first, int second, int games) {
+            this.id = id;
+            this.first = first;
+            this.second = second;
+            this.games = games;
+        }
+    }
+}
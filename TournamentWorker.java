@@ -0,0 +1,53 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// Proces roboczy turnieju: pobiera od koordynatora zadania i rozgrywa je bez sieci
+public class TournamentWorker {
+    private String host;
+    private int port;
+
+    public TournamentWorker(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            Random random = new Random();
+            // koordynator po pid rozpozna, który proces zabić, gdy ten się zawiesi
+            out.println("robotnik;" + ProcessHandle.current().pid());
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(";");
+                if ("koniec".equals(parts[0])) {
+                    break;
+                }
+                if (!"zadanie".equals(parts[0]) || parts.length != 5) {
+                    System.err.println("Nieznane polecenie: " + line);
+                    continue;
+                }
+
+                // zadanie;id;strategiaA;strategiaB;liczbaGier
+                HeadlessGame game = new HeadlessGame(
+                        ShotStrategy.forName(parts[2], random),
+                        ShotStrategy.forName(parts[3], random));
+                int games = Integer.parseInt(parts[4]);
+                int firstWins = 0;
+                for (int i = 0; i < games; i++) {
+                    if (game.play(i % 2 == 0)) {
+                        firstWins++;
+                    }
+                }
+                out.println("wynik;" + parts[1] + ";" + firstWins + ";" + (games - firstWins));
+            }
+        }
+    }
+}